@@ -0,0 +1,59 @@
+package com.artcom.hivemq_retained_message_query_extension.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Records every latency sample, so that percentiles are exact rather than estimated from a reservoir.
+ */
+class LatencyRecorder {
+    private final String name;
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+
+        samples[count++] = nanos;
+    }
+
+    synchronized void recordError() {
+        errors++;
+    }
+
+    static String header() {
+        return String.format("%-10s %10s %8s %12s %10s %10s %10s %10s",
+                "", "count", "errors", "per second", "p50 ms", "p99 ms", "p999 ms", "max ms");
+    }
+
+    synchronized String report(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+
+        return String.format("%-10s %10d %8d %12.1f %10.3f %10.3f %10.3f %10.3f",
+                name,
+                count,
+                errors,
+                count / seconds,
+                percentile(sorted, 0.5),
+                percentile(sorted, 0.99),
+                percentile(sorted, 0.999),
+                percentile(sorted, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,277 @@
+package com.artcom.hivemq_retained_message_query_extension.loadtest;
+
+import com.artcom.hivemq_retained_message_query_extension.RetainedMessageTree;
+import com.artcom.hivemq_retained_message_query_extension.query.QueryHandler;
+import com.google.common.collect.ImmutableMap;
+import com.hivemq.extension.sdk.api.interceptor.publish.parameter.PublishInboundInput;
+import com.hivemq.extension.sdk.api.interceptor.publish.parameter.PublishInboundOutput;
+import com.hivemq.extension.sdk.api.packets.publish.PublishPacket;
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.net.HttpURLConnection.HTTP_OK;
+
+/**
+ * Drives the retained message tree and the query endpoint under mixed load without a broker.
+ *
+ * Retained publishes for {@code building/floor<f>/room<r>/<sensor>} topics are fed into
+ * {@link RetainedMessageTree#onInboundPublish} at a fixed rate. Most publishes update an existing topic, but a share
+ * of them creates new room topics or clears existing topics with an empty payload, so that the tree is structurally
+ * modified while it is queried. At the same time HTTP clients send single, wildcard,
+ * prefix and batch queries to a real {@link QueryHandler} at a fixed rate as well. Query latencies are measured
+ * from the time a query was scheduled to be sent, so that a client falling behind its schedule shows up as
+ * latency instead of silently lowering the load. Single queries for cleared topics are answered with a 404, which
+ * counts as a valid response. The load is configured with system properties, see the fields
+ * below, and results are only recorded after the warmup.
+ */
+public class LoadTestMain {
+    private static final String[] SENSORS = {"temperature", "humidity", "co2"};
+
+    private static final int floors = Integer.getInteger("loadtest.floors", 10);
+    private static final int rooms = Integer.getInteger("loadtest.rooms", 200);
+    private static final int publishRate = Integer.getInteger("loadtest.publishRate", 5000);
+    private static final int newTopicPercent = Integer.getInteger("loadtest.newTopicPercent", 5);
+    private static final int deletePercent = Integer.getInteger("loadtest.deletePercent", 5);
+    private static final int clients = Integer.getInteger("loadtest.clients", 16);
+    private static final int queryRate = Integer.getInteger("loadtest.queryRate", 400);
+    private static final int batchSize = Integer.getInteger("loadtest.batchSize", 100);
+    private static final int executorThreads = Integer.getInteger("loadtest.executorThreads", Runtime.getRuntime().availableProcessors());
+    private static final int warmupSeconds = Integer.getInteger("loadtest.warmup", 5);
+    private static final int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+
+    private static final LatencyRecorder ingestLag = new LatencyRecorder("ingest");
+    private static final LatencyRecorder singleQueries = new LatencyRecorder("single");
+    private static final LatencyRecorder wildcardQueries = new LatencyRecorder("wildcard");
+    private static final LatencyRecorder prefixQueries = new LatencyRecorder("prefix");
+    private static final LatencyRecorder batchQueries = new LatencyRecorder("batch");
+
+    private static final AtomicLong published = new AtomicLong();
+    private static volatile boolean measuring;
+    private static volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        requireAtLeast("loadtest.floors", floors, 1);
+        requireAtLeast("loadtest.rooms", rooms, 1);
+        requireAtLeast("loadtest.publishRate", publishRate, 1);
+        requireAtLeast("loadtest.newTopicPercent", newTopicPercent, 0);
+        requireAtLeast("loadtest.deletePercent", deletePercent, 0);
+        requireAtMost("loadtest.newTopicPercent + loadtest.deletePercent", newTopicPercent + deletePercent, 100);
+        requireAtLeast("loadtest.clients", clients, 1);
+        requireAtLeast("loadtest.queryRate", queryRate, 1);
+        requireAtLeast("loadtest.batchSize", batchSize, 1);
+        requireAtLeast("loadtest.executorThreads", executorThreads, 1);
+        requireAtLeast("loadtest.warmup", warmupSeconds, 0);
+        requireAtLeast("loadtest.duration", durationSeconds, 1);
+
+        List<String> topics = IntStream.range(0, floors).boxed()
+                .flatMap(floor -> IntStream.range(0, rooms).boxed()
+                        .flatMap(room -> IntStream.range(0, SENSORS.length)
+                                .mapToObj(sensor -> topic(floor, room, sensor))))
+                .collect(Collectors.toList());
+
+        ExecutorService executor = Executors.newFixedThreadPool(executorThreads);
+        StubServices.install(topics, executor, lag -> {
+            if (measuring) {
+                ingestLag.record(lag);
+            }
+        });
+
+        RetainedMessageTree retainedMessageTree = new RetainedMessageTree();
+        retainedMessageTree.init().get();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/query").setHandler(new QueryHandler(retainedMessageTree, false));
+        server.start();
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/query");
+
+        System.out.printf("Retained topics: %d, publish rate: %d/s (%d%% new topics, %d%% deletes), query rate: %d/s, HTTP clients: %d, batch size: %d, executor threads: %d%n",
+                topics.size(), publishRate, newTopicPercent, deletePercent, queryRate, clients, batchSize, executorThreads);
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> publish(retainedMessageTree, new ArrayList<>(topics)), "publisher"));
+
+        long queryInterval = TimeUnit.SECONDS.toNanos(1) * clients / queryRate;
+        long queryStart = System.nanoTime();
+
+        for (int i = 0; i < clients; i++) {
+            long offset = queryInterval * i / clients;
+            threads.add(new Thread(() -> query(uri, queryStart + offset, queryInterval), "client-" + i));
+        }
+
+        threads.forEach(Thread::start);
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        published.set(0);
+        measuring = true;
+        long start = System.nanoTime();
+
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        measuring = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running = false;
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        server.stop(0);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.printf("Published %d retained messages in %.1f s (%.1f/s)%n", published.get(), seconds, published.get() / seconds);
+        System.out.println("Query latencies are measured from the scheduled send time of each query");
+        System.out.println(LatencyRecorder.header());
+
+        for (LatencyRecorder recorder : List.of(ingestLag, singleQueries, wildcardQueries, prefixQueries, batchQueries)) {
+            System.out.println(recorder.report(seconds));
+        }
+    }
+
+    /**
+     * Publishes to the given retained topics, which are updated as topics are created and cleared.
+     * New topics are created as additional rooms, so that they are inserted into the floors queried by
+     * wildcard and prefix queries.
+     */
+    private static void publish(RetainedMessageTree retainedMessageTree, List<String> topics) {
+        PublishInboundOutput output = StubServices.stub(PublishInboundOutput.class, ImmutableMap.of());
+        long interval = TimeUnit.SECONDS.toNanos(1) / publishRate;
+        long next = System.nanoTime();
+        int nextRoom = rooms;
+
+        while (running) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int kind = random.nextInt(100);
+            String topic;
+            String payload;
+
+            if (kind < newTopicPercent || topics.isEmpty()) {
+                topic = topic(random.nextInt(floors), nextRoom++, random.nextInt(SENSORS.length));
+                payload = Integer.toString(random.nextInt(1000));
+                topics.add(topic);
+            } else if (kind < newTopicPercent + deletePercent) {
+                int index = random.nextInt(topics.size());
+                topic = topics.get(index);
+                payload = "";
+                topics.set(index, topics.get(topics.size() - 1));
+                topics.remove(topics.size() - 1);
+            } else {
+                topic = topics.get(random.nextInt(topics.size()));
+                payload = Integer.toString(random.nextInt(1000));
+            }
+
+            PublishPacket packet = StubServices.stub(PublishPacket.class, ImmutableMap.of(
+                    "getTopic", ignored -> topic,
+                    "getRetain", ignored -> true,
+                    "getPayload", ignored -> Optional.of(StubServices.payload(payload))));
+            PublishInboundInput input = StubServices.stub(PublishInboundInput.class, ImmutableMap.of(
+                    "getPublishPacket", ignored -> packet));
+
+            retainedMessageTree.onInboundPublish(input, output);
+            published.incrementAndGet();
+
+            next += interval;
+            long delay = next - System.nanoTime();
+
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+        }
+    }
+
+    private static void query(URI uri, long next, long interval) {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        while (running) {
+            long scheduled = next;
+            next += interval;
+            long delay = scheduled - System.nanoTime();
+
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int floor = random.nextInt(floors);
+            LatencyRecorder recorder;
+            String body;
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    recorder = singleQueries;
+                    body = query(topic(floor, random.nextInt(rooms), random.nextInt(SENSORS.length)), 0);
+                    break;
+                case 1:
+                    recorder = wildcardQueries;
+                    body = query("building/floor" + floor + "/+/" + SENSORS[random.nextInt(SENSORS.length)], 0);
+                    break;
+                case 2:
+                    recorder = prefixQueries;
+                    body = query("building/floor" + floor + "/room" + random.nextInt(10) + "*", 1);
+                    break;
+                default:
+                    recorder = batchQueries;
+                    body = random.ints(batchSize, 0, rooms)
+                            .mapToObj(room -> query(topic(floor, room, 0), 0))
+                            .collect(Collectors.joining(",", "[", "]"));
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+                if (measuring) {
+                    if (response.statusCode() == HTTP_OK || response.statusCode() == HTTP_NOT_FOUND) {
+                        recorder.record(System.nanoTime() - scheduled);
+                    } else {
+                        recorder.recordError();
+                    }
+                }
+            } catch (Exception e) {
+                if (measuring) {
+                    recorder.recordError();
+                }
+            }
+        }
+    }
+
+    private static void requireAtLeast(String property, int value, int minimum) {
+        if (value < minimum) {
+            throw new IllegalArgumentException("System property " + property + " must be at least " + minimum + ", but is " + value);
+        }
+    }
+
+    private static void requireAtMost(String property, int value, int maximum) {
+        if (value > maximum) {
+            throw new IllegalArgumentException("System property " + property + " must be at most " + maximum + ", but is " + value);
+        }
+    }
+
+    private static String topic(int floor, int room, int sensor) {
+        return "building/floor" + floor + "/room" + room + "/" + SENSORS[sensor];
+    }
+
+    private static String query(String topic, int depth) {
+        return "{\"topic\":\"" + topic + "\",\"depth\":" + depth + "}";
+    }
+}
@@ -0,0 +1,117 @@
+package com.artcom.hivemq_retained_message_query_extension.loadtest;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.services.ManagedExtensionExecutorService;
+import com.hivemq.extension.sdk.api.services.Services;
+import com.hivemq.extension.sdk.api.services.general.IterationCallback;
+import com.hivemq.extension.sdk.api.services.general.IterationContext;
+import com.hivemq.extension.sdk.api.services.publish.RetainedPublish;
+import com.hivemq.extension.sdk.api.services.subscription.RetainedMessageStore;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Stands in for the services HiveMQ provides to an extension. The stubs are injected into {@link Services}
+ * the same way the broker does it, by setting its static service map, and only implement the methods
+ * the extension actually calls. Everything else throws an {@link UnsupportedOperationException}.
+ */
+class StubServices {
+    private StubServices() {
+    }
+
+    static void install(@NotNull List<String> retainedTopics,
+                        @NotNull ExecutorService executor,
+                        @NotNull LongConsumer taskLatency) {
+        Map<String, Object> services = new HashMap<>();
+        services.put(RetainedMessageStore.class.getCanonicalName(), retainedMessageStore(retainedTopics));
+        services.put(ManagedExtensionExecutorService.class.getCanonicalName(), extensionExecutorService(executor, taskLatency));
+        services.put(MetricRegistry.class.getCanonicalName(), new MetricRegistry());
+
+        try {
+            Field field = Services.class.getDeclaredField("services");
+            field.setAccessible(true);
+            field.set(null, services);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to install stub services into " + Services.class.getName(), e);
+        }
+    }
+
+    static ByteBuffer payload(@NotNull String payload) {
+        return ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RetainedMessageStore retainedMessageStore(@NotNull List<String> retainedTopics) {
+        return stub(RetainedMessageStore.class, ImmutableMap.of("iterateAllRetainedMessages", args -> {
+            IterationCallback<RetainedPublish> callback = (IterationCallback<RetainedPublish>) args[0];
+            IterationContext context = stub(IterationContext.class, ImmutableMap.of());
+
+            for (String topic : retainedTopics) {
+                callback.iterate(context, stub(RetainedPublish.class, ImmutableMap.of(
+                        "getTopic", ignored -> topic,
+                        "getPayload", ignored -> Optional.of(payload(topic)))));
+            }
+
+            return CompletableFuture.completedFuture(null);
+        }));
+    }
+
+    private static ManagedExtensionExecutorService extensionExecutorService(@NotNull ExecutorService executor,
+                                                                            @NotNull LongConsumer taskLatency) {
+        return stub(ManagedExtensionExecutorService.class, ImmutableMap.of(
+                "submit", args -> {
+                    Runnable task = (Runnable) args[0];
+                    long submitted = System.nanoTime();
+
+                    return CompletableFuture.runAsync(() -> {
+                        task.run();
+                        taskLatency.accept(System.nanoTime() - submitted);
+                    }, executor);
+                },
+                "execute", args -> {
+                    executor.execute((Runnable) args[0]);
+                    return null;
+                }));
+    }
+
+    static <T> T stub(@NotNull Class<T> type, @NotNull Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(type, proxy, method, args);
+            }
+
+            Function<Object[], Object> implementation = methods.get(method.getName());
+
+            if (implementation == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not stubbed");
+            }
+
+            return implementation.apply(args);
+        }));
+    }
+
+    private static Object invokeObjectMethod(Class<?> type, Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "Stub" + type.getSimpleName();
+        }
+    }
+}
@@ -19,11 +19,17 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 public class RetainedMessageTree implements PublishInboundInterceptor, ClientLifecycleEventListener {
@@ -40,11 +46,40 @@ public class RetainedMessageTree implements PublishInboundInterceptor, ClientLif
                 (context, retainedPublish) -> addNode(retainedPublish.getTopic(), retainedPublish.getPayload().get()));
     }
 
-    public Stream<Node> getNodes(@NotNull String topic) {
+    /**
+     * Resolves the topics of many queries with a single walk of the tree and maps the matching nodes of each
+     * query to a result. The topics are merged into a trie first, so that shared prefixes are only visited once.
+     * The walk and all mappings happen under a single read lock, so every result reflects the same state of the tree.
+     *
+     * @return the results in the order of the queries
+     */
+    public <Q, T> List<T> mapNodes(@NotNull List<Q> queries,
+                                   @NotNull Function<Q, String> topic,
+                                   @NotNull BiFunction<Q, Stream<Node>, T> mapper) {
+        Map<String, List<Node>> nodes = new HashMap<>();
+        PathTrie trie = new PathTrie();
+
+        for (Q query : queries) {
+            String name = topic.apply(query);
+
+            if (!nodes.containsKey(name)) {
+                nodes.put(name, new ArrayList<>());
+                trie.add(name);
+            }
+        }
+
         lock.readLock().lock();
 
         try {
-            return root.getNodes(topic);
+            root.collectNodes(trie, nodes);
+
+            List<T> results = new ArrayList<>(queries.size());
+
+            for (Q query : queries) {
+                results.add(mapper.apply(query, nodes.get(topic.apply(query)).stream()));
+            }
+
+            return results;
         } finally {
             lock.readLock().unlock();
         }
@@ -157,28 +192,54 @@ public class RetainedMessageTree implements PublishInboundInterceptor, ClientLif
             return children.values().stream();
         }
 
-        private Stream<Node> getNodes(@NotNull String topic) {
-            return getNodes(toPath(topic));
+        private void collectNodes(@NotNull PathTrie trie, @NotNull Map<String, List<Node>> results) {
+            for (String topic : trie.topics) {
+                results.get(topic).add(this);
+            }
+
+            trie.children.forEach((name, childTrie) ->
+                    getChildren(name).forEach(child -> child.collectNodes(childTrie, results)));
         }
 
-        private Stream<Node> getNodes(@NotNull ImmutableList<String> path) {
-            if (path.isEmpty()) {
-                return Stream.of(this);
+        /**
+         * Returns the children matching a single topic level, see {@link TopicLevels} for the wildcard syntax.
+         * Prefixes and ranges are answered with range views of the sorted children.
+         */
+        private Stream<Node> getChildren(@NotNull String name) {
+            if ("+".equals(name)) {
+                return getChildren();
             }
 
-            String name = path.get(0);
+            if (TopicLevels.isPrefix(name)) {
+                String prefix = TopicLevels.prefix(name);
 
-            if ("+".equals(name)) {
-                return getChildren().flatMap(child -> child.getNodes(path.subList(1, path.size())));
-            } else {
-                Node child = children.get(name);
+                return children.tailMap(prefix, true).entrySet().stream()
+                        .takeWhile(entry -> entry.getKey().startsWith(prefix))
+                        .map(Map.Entry::getValue);
+            }
 
-                if (child == null) {
+            if (TopicLevels.isRange(name)) {
+                String from = TopicLevels.rangeFrom(name);
+                String to = TopicLevels.rangeTo(name);
+
+                if (!from.isEmpty() && !to.isEmpty() && from.compareTo(to) > 0) {
                     return Stream.empty();
                 }
 
-                return child.getNodes(path.subList(1, path.size()));
+                NavigableMap<String, Node> range = children;
+
+                if (!from.isEmpty()) {
+                    range = range.tailMap(from, true);
+                }
+
+                if (!to.isEmpty()) {
+                    range = range.headMap(to, true);
+                }
+
+                return range.values().stream();
             }
+
+            return Stream.ofNullable(children.get(name));
         }
 
         private Node createNode(@NotNull String topic) {
@@ -244,6 +305,21 @@ public class RetainedMessageTree implements PublishInboundInterceptor, ClientLif
         }
     }
 
+    private static class PathTrie {
+        private final List<String> topics = new ArrayList<>();
+        private final TreeMap<String, PathTrie> children = new TreeMap<>();
+
+        private void add(@Nullable String topic) {
+            PathTrie trie = this;
+
+            for (String name : Node.toPath(topic)) {
+                trie = trie.children.computeIfAbsent(name, ignored -> new PathTrie());
+            }
+
+            trie.topics.add(topic);
+        }
+    }
+
     static public class RetainedLastWill {
         public RetainedLastWill(String topic, Optional<ByteBuffer> payload) {
             this.topic = topic;
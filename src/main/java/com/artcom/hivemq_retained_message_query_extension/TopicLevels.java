@@ -0,0 +1,38 @@
+package com.artcom.hivemq_retained_message_query_extension;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+/**
+ * The syntax of wildcard topic levels in queries: {@code +} for all children, {@code sensor-*} for all children
+ * starting with a prefix and {@code [a..m]} for all children in an inclusive lexical range. Either bound of a range
+ * may be omitted, so {@code [..]} matches all children. Retained topics using this syntax in a level can only be
+ * queried by these wildcards.
+ */
+public final class TopicLevels {
+    private TopicLevels() {
+    }
+
+    public static boolean isWildcard(@NotNull String level) {
+        return "+".equals(level) || isPrefix(level) || isRange(level);
+    }
+
+    public static boolean isPrefix(@NotNull String level) {
+        return level.endsWith("*");
+    }
+
+    public static boolean isRange(@NotNull String level) {
+        return level.length() >= 4 && level.startsWith("[") && level.endsWith("]") && level.contains("..");
+    }
+
+    public static @NotNull String prefix(@NotNull String level) {
+        return level.substring(0, level.length() - 1);
+    }
+
+    public static @NotNull String rangeFrom(@NotNull String level) {
+        return level.substring(1, level.indexOf(".."));
+    }
+
+    public static @NotNull String rangeTo(@NotNull String level) {
+        return level.substring(level.indexOf("..") + 2, level.length() - 1);
+    }
+}
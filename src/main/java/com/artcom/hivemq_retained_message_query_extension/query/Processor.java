@@ -8,6 +8,7 @@ import com.artcom.hivemq_retained_message_query_extension.query.results.TopicNot
 
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 class Processor {
     private final RetainedMessageTree retainedMessageTree;
@@ -17,22 +18,30 @@ class Processor {
     }
 
     Result processQuery(Query query) {
+        return processQueries(List.of(query)).get(0);
+    }
+
+    List<Result> processQueries(List<Query> queries) {
+        return retainedMessageTree.mapNodes(queries, query -> query.topic, Processor::createResult);
+    }
+
+    private static Result createResult(Query query, Stream<RetainedMessageTree.Node> nodes) {
         if (query.isWildcardQuery()) {
-            return processWildcardQuery(query);
+            return processWildcardQuery(query, nodes);
         } else {
-            return processSingleQuery(query);
+            return processSingleQuery(query, nodes);
         }
     }
 
-    private Result processSingleQuery(Query query) {
-        return retainedMessageTree.getNodes(query.topic)
+    private static Result processSingleQuery(Query query, Stream<RetainedMessageTree.Node> nodes) {
+        return nodes
                 .findFirst()
                 .map(node -> (Result)createResult(node, query.depth))
                 .orElse(new TopicNotFoundError(query.topic));
     }
 
-    private ResultList processWildcardQuery(Query query) {
-        return retainedMessageTree.getNodes(query.topic)
+    private static ResultList processWildcardQuery(Query query, Stream<RetainedMessageTree.Node> nodes) {
+        return nodes
                 .map(node -> createResult(node, query.depth))
                 .collect(Collectors.toCollection(ResultList::new));
     }
@@ -1,7 +1,10 @@
 package com.artcom.hivemq_retained_message_query_extension.query;
 
+import com.artcom.hivemq_retained_message_query_extension.TopicLevels;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
 
+import java.util.Arrays;
+
 class Query {
     @Nullable
     public String topic;
@@ -9,6 +12,6 @@ class Query {
     public boolean flatten;
 
     boolean isWildcardQuery() {
-        return !(topic == null) && topic.contains("+");
+        return !(topic == null) && Arrays.stream(topic.split("/", -1)).anyMatch(TopicLevels::isWildcard);
     }
 }
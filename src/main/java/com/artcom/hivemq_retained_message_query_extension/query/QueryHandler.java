@@ -9,6 +9,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.slf4j.Logger;
@@ -18,7 +19,9 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY;
@@ -102,20 +105,50 @@ public class QueryHandler implements HttpHandler {
     }
 
     private Result processBatchQuery(List<JsonNode> queryJsons) {
-        return queryJsons.stream()
-                .map(this::processSingleQuery)
-                .collect(Collectors.toCollection(ResultList::new));
+        List<Query> queries = new ArrayList<>();
+
+        for (JsonNode queryJson : queryJsons) {
+            queries.add(parseQuery(queryJson));
+        }
+
+        List<Query> validQueries = queries.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        List<Result> results = processor.processQueries(validQueries);
+
+        ResultList resultList = new ResultList();
+        int resultIndex = 0;
+
+        for (Query query : queries) {
+            if (query == null) {
+                resultList.add(new ParameterError());
+            } else {
+                resultList.add(applyFlatten(query, results.get(resultIndex++)));
+            }
+        }
+
+        return resultList;
     }
 
     private Result processSingleQuery(JsonNode queryJson) {
-        Query query;
+        Query query = parseQuery(queryJson);
+
+        if (query == null) {
+            return new ParameterError();
+        }
+
+        return applyFlatten(query, processor.processQuery(query));
+    }
+
+    private @Nullable Query parseQuery(JsonNode queryJson) {
         try {
-            query = objectMapper.treeToValue(queryJson, Query.class);
+            return objectMapper.treeToValue(queryJson, Query.class);
         } catch (JsonProcessingException e) {
-            return new ParameterError();
+            return null;
         }
+    }
 
-        Result result = processor.processQuery(query);
+    private static Result applyFlatten(Query query, Result result) {
         if (query.flatten) {
             return result.flatten().collect(Collectors.toCollection(ResultList::new));
         } else {
@@ -282,6 +282,74 @@ describe("Query API", () => {
         ])
       })
 
+      it("should return parameter errors at the index of invalid queries", async () => {
+        const response = await httpClient.queryBatch([
+          { topic: `${testTopic}/topic1` },
+          { invalid: "query" },
+          { topic: `${testTopic}/topic2` },
+        ])
+
+        expect(response).toHaveLength(3)
+        expect(response[0]).toEqual({ topic: `${testTopic}/topic1`, payload: "foo" })
+        expect(JSON.parse(response[1].message)).toEqual({
+          error: 400,
+          message:
+            "The request body must be a JSON object with a 'topic' and optional 'depth'" +
+            " property, or a JSON array of such objects.",
+        })
+        expect(response[2]).toEqual({ topic: `${testTopic}/topic2`, payload: "bar" })
+      })
+
+      it("should support duplicate topics with different parameters", async () => {
+        await mqttClient.publish(`${testTopic}/topic1/child`, "one")
+
+        const response = await httpClient.queryBatch([
+          { topic: `${testTopic}/topic1` },
+          { topic: `${testTopic}/topic1`, depth: 1 },
+          { topic: `${testTopic}/topic1`, depth: 1, flatten: true },
+        ])
+
+        expect(response).toEqual([
+          { topic: `${testTopic}/topic1`, payload: "foo" },
+          {
+            topic: `${testTopic}/topic1`,
+            payload: "foo",
+            children: [{ topic: `${testTopic}/topic1/child`, payload: "one" }],
+          },
+          [
+            { topic: `${testTopic}/topic1`, payload: "foo" },
+            { topic: `${testTopic}/topic1/child`, payload: "one" },
+          ],
+        ])
+      })
+
+      it("should support wildcard and exact queries with a shared prefix", async () => {
+        await mqttClient.publish(`${testTopic}/topic1/child`, "one")
+        await mqttClient.publish(`${testTopic}/topic2/child`, "two")
+
+        const response = await httpClient.queryBatch([
+          { topic: `${testTopic}/topic2/child` },
+          { topic: `${testTopic}/+/child` },
+          { topic: `${testTopic}/topic1` },
+          { topic: `${testTopic}/topic1/does-not-exist` },
+        ])
+
+        expect(response).toEqual([
+          { topic: `${testTopic}/topic2/child`, payload: "two" },
+          [
+            { topic: `${testTopic}/topic1/child`, payload: "one" },
+            { topic: `${testTopic}/topic2/child`, payload: "two" },
+          ],
+          { topic: `${testTopic}/topic1`, payload: "foo" },
+          new Error(
+            JSON.stringify({
+              error: 404,
+              topic: `${testTopic}/topic1/does-not-exist`,
+            })
+          ),
+        ])
+      })
+
       it("should support different depth parameters", async () => {
         await mqttClient.publish(`${testTopic}/topic1/child`, "one")
         await mqttClient.publish(`${testTopic}/topic2/child`, "two")
@@ -470,6 +538,65 @@ describe("Query API", () => {
 
         expect(response).toEqual([{ topic: `${testTopic}/topic3//foo`, payload: true }])
       })
+
+      it("should support prefix levels", async () => {
+        await mqttClient.publish(`${testTopic}/other`, "baz")
+        const response = await httpClient.query({ topic: `${testTopic}/topic*` })
+
+        expect(response).toEqual([
+          { topic: `${testTopic}/topic1`, payload: "foo" },
+          { topic: `${testTopic}/topic2`, payload: "bar" },
+        ])
+      })
+
+      it("should support range levels", async () => {
+        await mqttClient.publish(`${testTopic}/topic3/child`, "three")
+        const response = await httpClient.query({ topic: `${testTopic}/[topic2..topic3]/child` })
+
+        expect(response).toEqual([
+          { topic: `${testTopic}/topic2/child`, payload: "two" },
+          { topic: `${testTopic}/topic3/child`, payload: "three" },
+        ])
+      })
+
+      it("should support open range levels", async () => {
+        const response = await httpClient.query({ topic: `${testTopic}/[..topic1]` })
+
+        expect(response).toEqual([{ topic: `${testTopic}/topic1`, payload: "foo" }])
+      })
+
+      it("should return empty array for inverted range levels", async () => {
+        const response = await httpClient.query({ topic: `${testTopic}/[topic2..topic1]` })
+
+        expect(response).toEqual([])
+      })
+
+      it("should support prefix and range levels in batch queries", async () => {
+        await mqttClient.publish(`${testTopic}/topic10`, "baz")
+
+        const response = await httpClient.queryBatch([
+          { topic: `${testTopic}/topic*` },
+          { topic: `${testTopic}/[topic10..topic2]` },
+          { topic: `${testTopic}/topic1` },
+          { topic: `${testTopic}/[topic2..topic1]` },
+          { topic: `${testTopic}/[topic1..topic1]/child` },
+        ])
+
+        expect(response).toEqual([
+          [
+            { topic: `${testTopic}/topic1`, payload: "foo" },
+            { topic: `${testTopic}/topic10`, payload: "baz" },
+            { topic: `${testTopic}/topic2`, payload: "bar" },
+          ],
+          [
+            { topic: `${testTopic}/topic10`, payload: "baz" },
+            { topic: `${testTopic}/topic2`, payload: "bar" },
+          ],
+          { topic: `${testTopic}/topic1`, payload: "foo" },
+          [],
+          [{ topic: `${testTopic}/topic1/child`, payload: "one" }],
+        ])
+      })
     })
   })
 })